@@ -2,23 +2,26 @@ package com.mobiquity.packer;
 
 import com.mobiquity.exception.APIException;
 import com.mobiquity.exception.ParserException;
+import com.mobiquity.packer.domain.PackResult;
 import com.mobiquity.packer.domain.Package;
 import com.mobiquity.packer.domain.PackageItem;
 import com.mobiquity.validation.DefaultPackageValidationService;
+import com.mobiquity.validation.PackageValidationService;
 import com.mobiquity.validation.ValidationResult;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 
 public class Packer {
 
+    /* Bias added to the lower 32 bits of each cell in findBestFitsIntoPackage - it must be greater than any total weight */
+    private static final long WEIGHT_BIAS = Integer.MAX_VALUE;
+
     private Packer() {
     }
 
@@ -66,6 +69,16 @@ public class Packer {
      * Which items should he take? (We call this the 0-1 knapsack problem because for each item, the thief must either
      * Greedy Algorithms take it or leave it behind; he cannot take a fractional amount of an item or take an item more than once.)
      *
+     * When more than one set of itens reaches the maximum cost, the lightest one is choosen ("You would prefer to
+     * send a package which weighs less in case there is more than one package with the same price").
+     *
+     * Both criterias are solved in a single pass: each cell of the dynamic programming table holds a single long,
+     * with the total cost on the upper 32 bits and the (negated) total weight on the lower 32 bits. So, comparing
+     * two cells with Math.max compares the costs first, and the weights only when the costs are the same.
+     *
+     * Weights and costs have at most 2 decimal places, so they are handled as integer hundredths - this way the
+     * weights can be used as indexes of the table without any rounding.
+     *
      * @param capacity An Integer number representing maximum capacity for a Pack
      * @param costs    An array of float numbers representing the costs of each item that can possibly fills in the Pack
      * @param weights  An array of float numbers representing the weights of each item that can possibly fills in the Pack
@@ -76,40 +89,43 @@ public class Packer {
                                          float weights[], Set<Integer> items) {
         int n = weights.length;
         int i, w;
-        float K[][] = new float[n + 1][capacity + 1];
+        int maxWeight = toHundredths(capacity);
+
+        /* K[w] is the best (cost, weight) pair found so far, for a Package with capacity w */
+        long K[] = new long[maxWeight + 1];
+        /* taken[i][w] is true when the item i is part of the best fit for capacity w, considering the first i itens */
+        boolean taken[][] = new boolean[n + 1][maxWeight + 1];
+
+        /* in the beggining (no item) every capacity holds cost 0 and weight 0 - the weight is stored as
+           WEIGHT_BIAS minus the weight, so that a lighter set of itens gives a bigger number */
+        Arrays.fill(K, WEIGHT_BIAS);
 
         /* using dynamic programming, we iteratively fill the array above with maximum cost of each item */
-        for (i = 0; i <= n; i++) {
-            for (w = 0; w <= capacity; w++) {
-                /* in the beggining (weight 0) we fill the array element with 0 */
-                if (i == 0 || w == 0)
-                    K[i][w] = 0;
-                else if (weights[i - 1] <= w) {
-                    // we look back and see an item which fit in the given weight
-                    K[i][w] = Math.max(costs[i - 1] +
-                            K[i - 1][(int) Math.ceil(w - weights[i - 1])], K[i - 1][w]);
-                } else {
-                    K[i][w] = K[i - 1][w];
+        for (i = 1; i <= n; i++) {
+            int weight = toHundredths(weights[i - 1]);
+            /* adding the item sums up its cost on the upper bits, and subtracts its weight on the lower bits */
+            long delta = ((long) toHundredths(costs[i - 1]) << 32) - weight;
+
+            /* going from the biggest capacity to the smallest one, K[w - weight] still holds the value for i - 1 itens */
+            for (w = maxWeight; w >= weight; w--) {
+                long withItem = K[w - weight] + delta;
+                if (withItem > K[w]) {
+                    K[w] = withItem;
+                    taken[i][w] = true;
                 }
             }
         }
 
         /* the maximum cost is found */
-        float maximumCost = K[n][capacity];
-
-        w = capacity;
-        /* since we have the maximum cost, now we must find all the items which sum up to this maximum cost */
-        for (i = n; i > 0 && maximumCost > 0; i--) {
-            if (maximumCost == Math.ceil(K[i - 1][w]))
-                continue;
-            else {
-                // we keep adding the item's ID in the Set passed as a parameter
-                items.add(i );
+        float maximumCost = (K[maxWeight] >>> 32) / 100f;
 
-                /* iteratively, decreases the maximumCost and the actual weight, so in the next iteration
-                 we keep trying to find all the itens */
-                maximumCost = (int) Math.ceil(maximumCost - costs[i - 1]);
-                w = (int) Math.ceil(w - weights[i - 1]);
+        w = maxWeight;
+        /* since we have the best fit, now we walk back through the table to find all the items of it */
+        for (i = n; i > 0; i--) {
+            if (taken[i][w]) {
+                // we keep adding the item's ID in the Set passed as a parameter
+                items.add(i);
+                w -= toHundredths(weights[i - 1]);
             }
         }
 
@@ -117,111 +133,214 @@ public class Packer {
     }
 
     /**
-     * Opens a file with Package and PackageItem's and parsers its contents
+     * Converts a weight or cost to an integer number of hundredths (e.g. 53.38 becomes 5338)
+     */
+    private static int toHundredths(float value) {
+        return Math.round(value * 100);
+    }
+
+    /**
+     * Parses a single line of the input into a Package
      *
-     * @param fileName      Path to the text file with all test cases
-     * @return              Returns a Map, representing the Test Case ID on its Key, and a Package object on its value
+     * @param line          A line in the form "81 : (1,53.38,€45) (2,88.62,€98)"
+     * @return              A Package instance, or null if the line holds no test case
      * @throws APIException
      */
-    private static Map<Integer, Package> loadFromFile(final String fileName) throws APIException {
-
-        final Map<Integer, Package> result = new HashMap<>();
+    private static Package parsePackage(final String line) throws APIException {
+        if (!isTestCase(line)) {
+            return null;
+        }
 
-        final DefaultPackageValidationService validation = new DefaultPackageValidationService();
+        final String[] fields = line.split(":");
+        if (fields.length < 2) {
+            throw new APIException("Error parsing line " + line + ", expected CAPACITY : ITEMS.");
+        }
 
-        /* declares an atomic Integer - this is to create an unique number to identify each test case */
-        AtomicInteger ind = new AtomicInteger();
+        Integer capacity = 0;
         try {
+            capacity = Integer.parseInt(fields[0].trim());
+        } catch (NumberFormatException exc) {
+            throw new APIException("Error parsing CAPACITY field " + fields[0].trim() + ".", exc);
+        }
 
-            /* Iterates over all lines from the File) - each single line represents a set of items which are supposedly able to fit in the Package */
-            for (final String line : Files.readAllLines(Paths.get(fileName))) {
-                if (!line.isBlank() && !line.isEmpty()) {
-                    final String[] fields = line.split(":");
-                    if (!fields[0].trim().isEmpty()) {
-                        Integer capacity = 0;
-                        try {
-                            capacity = Integer.parseInt(fields[0].trim());
-                        } catch (NumberFormatException exc) {
-                            throw new APIException("Error parsing CAPACITY field " + fields[0].trim() + ".", exc);
+        /* We create a Package instance - which represents a Bag, in which we can fit a lot of itens (PackageItem) */
+        /* The set of itens are triples in the form (xxx,yyy,zzz) and they are separated by spaces */
+        Package pack;
+        try {
+            pack = new Package(capacity, Stream.of(fields[1].replaceAll("\\s+$", " ").split(" "))
+                    .map(m -> {
+                        if (!m.trim().isEmpty()) {
+                            try {
+                                return PackageItem.fromString(m);
+                            } catch (ParserException e) {
+                                throw new RuntimeException(e);
+                            }
                         }
+                        return null;
+                    }).filter( m -> m != null)
+                    .collect(toList()));
+        } catch (RuntimeException exc) {
+            /* the lambda above can't throw a checked exception, so the ParserException comes wrapped */
+            if (exc.getCause() instanceof ParserException) {
+                throw new APIException(exc.getCause().getMessage(), (ParserException) exc.getCause());
+            }
+            throw exc;
+        }
 
-                        /* We create a Package instance - which represents a Bag, in which we can fit a lot of itens (PackageItem) */
-                        /* The set of itens are triples in the form (xxx,yyy,zzz) and they are separated by spaces */
-                        Package pack = new Package(capacity, Stream.of(fields[1].replaceAll("\\s+$", " ").split(" "))
-                                .map(m -> {
-                                    if (!m.trim().isEmpty()) {
-                                        try {
-                                            return PackageItem.fromString(m);
-                                        } catch (ParserException e) {
-                                            throw new RuntimeException(e);
-                                        }
-                                    }
-                                    return null;
-                                }).filter( m -> m != null)
-                                .collect(toList()));
-
-                        /* At this point we validate the Package and list of PackageItem, for the given validation criterias
-                           The constraints are:
-                            1. Max weight that a package can take is ≤ 100
-                            2. There might be up to 15 items you need to choose from
-                            3. Max weight and cost of an item is ≤ 100
-                        */
-                        final ValidationResult validationResult = validation.validate(pack);
-                        if (validationResult.notValid()) {
-                            System.out.println(validationResult.getErrorMsg());
-                            throw new APIException("Error parsing fields" + validationResult.getErrorMsg());
-                        }
+        return pack;
+    }
 
-                        /* Add an item to the Map - the Key is the unique Integer created by the AtomicInteger, and the Map value is a Package instance */
-                        result.put(ind.getAndIncrement(), pack);
-                    }
+    /**
+     * Validates a Package against the Package constraints
+     *
+     * @param pack          The Package to be validated
+     * @param validation    The validation service applied to the Package
+     * @throws APIException If the Package violates any constraint
+     */
+    private static void validatePackage(final Package pack, final PackageValidationService validation) throws APIException {
+        /* At this point we validate the Package and list of PackageItem, for the given validation criterias
+           The constraints are:
+            1. Max weight that a package can take is ≤ 100
+            2. There might be up to 15 items you need to choose from
+            3. Max weight and cost of an item is ≤ 100
+        */
+        final ValidationResult validationResult = validation.validate(pack);
+        if (validationResult.notValid()) {
+            throw new APIException("Error parsing fields" + validationResult.getErrorMsg());
+        }
+    }
 
-                } // if
+    /**
+     * Parses all lines with Package and PackageItem's
+     *
+     * @param lines         All test cases, one per line
+     * @return              Returns a List of Package, in the same order as the lines - the position on the List identifies the test case
+     * @throws APIException
+     */
+    private static List<Package> loadFromLines(final List<String> lines) throws APIException {
 
+        final List<Package> result = new ArrayList<>();
+
+        final DefaultPackageValidationService validation = new DefaultPackageValidationService();
+
+        /* Iterates over all lines - each single line represents a set of items which are supposedly able to fit in the Package */
+        for (final String line : lines) {
+            final Package pack = parsePackage(line);
+            if (pack != null) {
+                validatePackage(pack, validation);
+                result.add(pack);
             }
+        }
+
+        return result;
+    }
 
+    /**
+     * Opens a file with Package and PackageItem's and parsers its contents
+     *
+     * @param fileName      Path to the text file with all test cases
+     * @return              Returns a List of Package, in the same order as the lines of the File
+     * @throws APIException
+     */
+    private static List<Package> loadFromFile(final String fileName) throws APIException {
+        try {
+            return loadFromLines(Files.readAllLines(Paths.get(fileName)));
         } catch (IOException e) {
             e.printStackTrace();
             throw new APIException("Error reading file.", e);
         }
+    }
 
-        return result;
+    /**
+     * Tells if a line holds a test case - blank lines (and lines without a capacity before the colon) are ignored,
+     * and don't count as a test case
+     *
+     * @param line          A line, in the same format as the input File
+     * @return              True if the line holds a test case
+     */
+    public static boolean isTestCase(String line) {
+        return !line.isBlank() && !line.split(":", -1)[0].trim().isEmpty();
     }
 
-    public static String pack(String filePath) throws APIException {
-        /* a Strign representing the processing result for all test cases obtained from the File at filePath */
-        String result = new String();
+    /**
+     * Parses a single line, in the same format as the input File, into a Package.
+     *
+     * The Package is not validated here - solve validates it before finding the best fit.
+     *
+     * @param line          A line in the form "81 : (1,53.38,€45) (2,88.62,€98)"
+     * @return              A Package instance, or null if the line holds no test case (see isTestCase)
+     * @throws APIException If the line can't be parsed
+     */
+    public static Package parse(String line) throws APIException {
+        return parsePackage(line);
+    }
 
-        /* Parsers all test cases from the File passed in the filePath */
-        Map<Integer, Package> allCases = loadFromFile(filePath);
-
-        /* Iterates over all test cases, which were extracted from the File on the path at filePath */
-        for (Map.Entry<Integer, Package> caseItem : allCases.entrySet()) {
-            Set<Integer> selectedItems = new HashSet<>();
-
-            Package pack = caseItem.getValue();
-
-            /* it is necessary to transform all weights and costs to separate arrays - this is to prepare to our matching algorithm */
-            float[] costs = new float[pack.getItems().size()];
-            float[] weights = new float[pack.getItems().size()];
-            int ind = 0;
-            for (final PackageItem p : pack.getItems()) {
-                if (p != null) {
-                    costs[ind] = p.getCost();
-                    weights[ind] = p.getWeight();
-                }
-                ++ind;
+    /**
+     * Validates a Package and finds the best fit for it
+     *
+     * @param index         The position of this test case among the test cases of the input, reported back on the result
+     * @param pack          The Package with its capacity and list of PackageItem
+     * @return              The itens choosen, and their total cost and weight
+     * @throws APIException If the Package violates any constraint
+     */
+    public static PackResult solve(long index, Package pack) throws APIException {
+        validatePackage(pack, new DefaultPackageValidationService());
+        return packOne(index, pack);
+    }
+
+    /**
+     * Runs the Knapsack algorithm over a single Package
+     *
+     * @param index         The position of this test case in the input
+     * @param pack          The Package with its capacity and list of PackageItem
+     * @return              The itens choosen, and their total cost and weight
+     */
+    private static PackResult packOne(final long index, final Package pack) {
+        Set<Integer> selectedItems = new TreeSet<>();
+
+        /* it is necessary to transform all weights and costs to separate arrays - this is to prepare to our matching algorithm */
+        float[] costs = new float[pack.getItems().size()];
+        float[] weights = new float[pack.getItems().size()];
+        int ind = 0;
+        for (final PackageItem p : pack.getItems()) {
+            if (p != null) {
+                costs[ind] = p.getCost();
+                weights[ind] = p.getWeight();
             }
-            /* runs the Knapsack algorithm  to identify the items (PackageItem) which best fit the Package capacity */
-            float max = findBestFitsIntoPackage(pack.getCapacity(), costs, weights, selectedItems);
+            ++ind;
+        }
+        /* runs the Knapsack algorithm  to identify the items (PackageItem) which best fit the Package capacity */
+        findBestFitsIntoPackage(pack.getCapacity(), costs, weights, selectedItems);
+
+        /* sums up the cost and weight of the itens choosen - selectedItems holds their positions, starting at 1 */
+        float totalCost = 0, totalWeight = 0;
+        for (final Integer position : selectedItems) {
+            totalCost += costs[position - 1];
+            totalWeight += weights[position - 1];
+        }
+
+        return new PackResult(index, new ArrayList<>(selectedItems), totalCost, totalWeight);
+    }
 
-            /* Convert the Set with all PackageItem (best fit) to a String */
-            String caseResult = Stream.of(selectedItems.toArray()).map(Object::toString).collect(Collectors.joining(","));
-            result += (caseResult.trim().length() > 0 ? caseResult : "-") + "\n";
+    public static String pack(String filePath) throws APIException {
+        /* Parsers all test cases from the File passed in the filePath */
+        return packAll(loadFromFile(filePath));
+    }
+
+    private static String packAll(List<Package> allCases) {
+        /* a Strign representing the processing result for all test cases */
+        StringBuilder result = new StringBuilder();
+
+        /* Iterates over all test cases, in the order they were parsed */
+        for (int ind = 0; ind < allCases.size(); ind++) {
+            if (ind > 0) {
+                result.append("\n");
+            }
+            /* Convert the PackResult with all PackageItem (best fit) to a String */
+            result.append(packOne(ind, allCases.get(ind)));
         }
 
-        /* Return the result, removing the last character, which is a line break */
-        return result.substring(0, result.length() - 1);
+        return result.toString();
     }
 
     public static void main(String[] args) {
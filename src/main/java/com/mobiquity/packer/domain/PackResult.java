@@ -0,0 +1,56 @@
+package com.mobiquity.packer.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A PackResult is the best fit found for a single Package - the itens choosen, and their total cost and weight
+ */
+public class PackResult
+{
+    /* The position of the test case among all test cases of the input, starting at 0 - blank lines are not
+       counted, so it is the same as the line of this result on the output of Packer.pack */
+    private final long index;
+
+    /* The index numbers of the itens choosen, in ascending order */
+    private final List<Integer> items;
+
+    /* The sum of the costs of all itens choosen */
+    private final float totalCost;
+
+    /* The sum of the weights of all itens choosen */
+    private final float totalWeight;
+
+    public PackResult(long index, List<Integer> items, float totalCost, float totalWeight) {
+        this.index = index;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.totalCost = totalCost;
+        this.totalWeight = totalWeight;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public List<Integer> getItems() {
+        return items;
+    }
+
+    public float getTotalCost() {
+        return totalCost;
+    }
+
+    public float getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * The same representation used by Packer.pack - the itens separated by comma, or "-" if no item fits
+     */
+    public String toString() {
+        return items.isEmpty() ? "-" : items.stream().map(Object::toString).collect(Collectors.joining(","));
+    }
+
+}
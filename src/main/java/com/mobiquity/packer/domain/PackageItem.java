@@ -55,6 +55,9 @@ public class PackageItem
 
         /* split the elements in fields separated by comma - these values are: id, weight and cost */
         String[] parts = str.split(",");
+        if (parts.length < 3) {
+            throw new ParserException("Error parsing item "+str+", expected (ID,WEIGHT,COST)");
+        }
 
         int id = 0;
         float weight = 0, cost = 0;
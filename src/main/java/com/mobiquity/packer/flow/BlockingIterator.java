@@ -0,0 +1,107 @@
+package com.mobiquity.packer.flow;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A Flow.Subscriber which exposes the elements received as a blocking Iterator.
+ *
+ * It asks for "prefetch" elements at the beginning, and for one more each time an element is consumed, so the
+ * Publisher is never more than "prefetch" elements ahead of the consumer.
+ *
+ * @param <T>       The type of the elements
+ */
+class BlockingIterator<T> implements Flow.Subscriber<T>, Iterator<T>, AutoCloseable {
+
+    /* marks the end of the elements on the queue */
+    private static final Object COMPLETE = new Object();
+
+    private final int prefetch;
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private volatile Flow.Subscription subscription;
+
+    private Object next;
+
+    private Throwable error;
+
+    BlockingIterator(int prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T item) {
+        queue.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        queue.add(new Failure(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        queue.add(COMPLETE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Interrupted while waiting for the next result.", e);
+            }
+        }
+        if (next instanceof Failure) {
+            error = ((Failure) next).error;
+        }
+        if (error != null) {
+            throw error instanceof RuntimeException ? (RuntimeException) error : new RuntimeException(error);
+        }
+        return next != COMPLETE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T item = (T) next;
+        next = null;
+        subscription.request(1);
+        return item;
+    }
+
+    /**
+     * Cancels the subscription - no more elements are produced
+     */
+    @Override
+    public void close() {
+        final Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private static class Failure {
+        private final Throwable error;
+
+        Failure(Throwable error) {
+            this.error = error;
+        }
+    }
+}
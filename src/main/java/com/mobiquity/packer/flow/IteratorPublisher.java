@@ -0,0 +1,94 @@
+package com.mobiquity.packer.flow;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Flow.Publisher over an Iterator - the Iterator is only advanced when the Subscriber asks for more elements,
+ * so a lazy source (like a Stream reading a File) is never read ahead of the demand.
+ *
+ * @param <T>       The type of the elements
+ */
+class IteratorPublisher<T> implements Flow.Publisher<T> {
+
+    private final Iterator<? extends T> iterator;
+
+    private final AtomicInteger subscribed = new AtomicInteger();
+
+    IteratorPublisher(Iterator<? extends T> iterator) {
+        this.iterator = iterator;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscribed.getAndIncrement() != 0) {
+            subscriber.onSubscribe(new NoopSubscription());
+            subscriber.onError(new IllegalStateException("IteratorPublisher supports a single Subscriber."));
+            return;
+        }
+        subscriber.onSubscribe(new IteratorSubscription(subscriber));
+    }
+
+    private class IteratorSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private volatile boolean cancelled;
+
+        IteratorSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelled = true;
+                subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+
+            /* only the thread which moved the demand away from zero emits - the others just add to the demand */
+            if (requested.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b) != 0) {
+                return;
+            }
+
+            long emitted = 0;
+            for (;;) {
+                long demand = requested.get();
+                while (emitted < demand) {
+                    if (cancelled) {
+                        return;
+                    }
+                    final T next;
+                    try {
+                        if (!iterator.hasNext()) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                        next = iterator.next();
+                    } catch (RuntimeException e) {
+                        cancelled = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+                    subscriber.onNext(next);
+                    emitted++;
+                }
+                if (requested.addAndGet(-emitted) == 0) {
+                    return;
+                }
+                emitted = 0;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
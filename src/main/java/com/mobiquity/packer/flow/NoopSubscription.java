@@ -0,0 +1,18 @@
+package com.mobiquity.packer.flow;
+
+import java.util.concurrent.Flow;
+
+/**
+ * A Subscription which is already cancelled - it is given to a Subscriber which is rejected, right before
+ * calling its onError, so requesting from it has no effect
+ */
+class NoopSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+}
@@ -0,0 +1,342 @@
+package com.mobiquity.packer.flow;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.Packer;
+import com.mobiquity.packer.domain.PackResult;
+import com.mobiquity.packer.domain.Package;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * A Flow.Processor which receives test cases (Package instances, or lines to be parsed) and publishes one
+ * PackResult for each of them.
+ *
+ * The processing is demand-driven: test cases are only requested from upstream when the downstream Subscriber
+ * asked for results, and at most "concurrency" test cases are being solved (or waiting to be delivered) at any
+ * time. Results are delivered in the same order as the input, or as soon as they are ready, as configured.
+ *
+ * Blank lines don't produce a result, and don't count for PackResult.getIndex - the index is the position among
+ * the test cases only, the same as the line of the result on Packer.pack. Any error (a line that can't be parsed,
+ * a Package violating a constraint) cancels the upstream and is delivered to the Subscriber through onError.
+ *
+ * @param <T>       The type of the test cases received from upstream
+ */
+class PackProcessor<T> implements Flow.Processor<T, PackResult> {
+
+    /* Tells which elements received from upstream are test cases - the others (e.g. blank lines) are dropped */
+    private final Predicate<? super T> isTestCase;
+
+    private final Converter<T> converter;
+
+    private final int concurrency;
+
+    private final boolean ordered;
+
+    private final Executor executor;
+
+    /* guards the whole state below - the Subscribers are always called outside this lock */
+    private final Object lock = new Object();
+
+    /* makes sure only one thread at a time signals the downstream (see drain) */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private Flow.Subscription upstream;
+
+    private Flow.Subscriber<? super PackResult> downstream;
+
+    /* results requested by the downstream, and results delivered so far */
+    private long requested;
+    private long emitted;
+
+    /* test cases requested from upstream which didn't arrive yet */
+    private long upstreamPending;
+
+    /* test cases received from upstream which weren't delivered yet (being solved, or waiting for their turn) */
+    private int active;
+
+    /* position of the next test case received, and position of the next result to deliver (ordered mode) -
+       elements which aren't test cases don't take a position */
+    private long nextIndex;
+    private long nextToEmit;
+
+    /* results waiting to be delivered - by position on ordered mode, by arrival otherwise */
+    private final Map<Long, PackResult> waiting = new HashMap<>();
+    private final Queue<PackResult> ready = new ArrayDeque<>();
+
+    private boolean upstreamDone;
+    private boolean cancelled;
+    private boolean terminated;
+    private Throwable error;
+
+    PackProcessor(Predicate<? super T> isTestCase, Converter<T> converter, int concurrency, boolean ordered,
+                  Executor executor) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, but got " + concurrency);
+        }
+        this.isTestCase = isTestCase;
+        this.converter = converter;
+        this.concurrency = concurrency;
+        this.ordered = ordered;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super PackResult> subscriber) {
+        synchronized (lock) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new NoopSubscription());
+                subscriber.onError(new IllegalStateException("PackProcessor supports a single Subscriber."));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (lock) {
+            if (upstream != null || cancelled) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+        final long index;
+        synchronized (lock) {
+            if (terminated || cancelled) {
+                return;
+            }
+            upstreamPending--;
+            if (isTestCase.test(item)) {
+                active++;
+                index = nextIndex++;
+            } else {
+                index = -1;
+            }
+        }
+
+        if (index < 0) {
+            /* nothing to solve, but the demand it took from upstream must be requested again */
+            drain();
+            return;
+        }
+
+        try {
+            executor.execute(() -> solve(index, item));
+        } catch (RuntimeException e) {
+            onError(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (lock) {
+            if (error == null) {
+                error = throwable;
+            }
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    /**
+     * Runs on the Executor - converts the test case, finds its best fit, and hands the result to the downstream
+     */
+    private void solve(final long index, final T item) {
+        PackResult result;
+        try {
+            result = Packer.solve(index, converter.convert(item));
+        } catch (APIException | RuntimeException e) {
+            synchronized (lock) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            drain();
+            return;
+        }
+
+        synchronized (lock) {
+            if (ordered) {
+                waiting.put(index, result);
+            } else {
+                ready.add(result);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Takes the next result which can be delivered, or null if there is none. Must be called holding the lock.
+     */
+    private PackResult pollResult() {
+        if (!ordered) {
+            return ready.poll();
+        }
+        /* on ordered mode, a result can only go after all the previous ones */
+        final PackResult result = waiting.remove(nextToEmit);
+        if (result != null) {
+            nextToEmit++;
+        }
+        return result;
+    }
+
+    /**
+     * Delivers results, errors and completion to the downstream, and requests more test cases from upstream.
+     *
+     * Any thread may call it - only one at a time does the work, and the others just ask it for another round.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        for (;;) {
+            for (;;) {
+                Flow.Subscriber<? super PackResult> subscriber;
+                Flow.Subscription subscription;
+                PackResult next = null;
+                Throwable failure = null;
+                boolean complete = false;
+                long toRequest = 0;
+
+                synchronized (lock) {
+                    subscriber = downstream;
+                    subscription = upstream;
+                    if (subscriber == null || terminated) {
+                        break;
+                    }
+                    if (cancelled) {
+                        waiting.clear();
+                        ready.clear();
+                        break;
+                    }
+
+                    if (error != null) {
+                        terminated = true;
+                        failure = error;
+                        waiting.clear();
+                        ready.clear();
+                    } else {
+                        if (emitted < requested && (next = pollResult()) != null) {
+                            emitted++;
+                            active--;
+                        }
+
+                        if (next == null && upstreamDone && active == 0) {
+                            terminated = true;
+                            complete = true;
+                        } else if (!upstreamDone && subscription != null) {
+                            final long demand = Math.min(concurrency, requested - emitted);
+                            toRequest = demand - active - upstreamPending;
+                            if (toRequest > 0) {
+                                upstreamPending += toRequest;
+                            } else {
+                                toRequest = 0;
+                            }
+                        }
+                    }
+                }
+
+                if (failure != null) {
+                    if (subscription != null) {
+                        subscription.cancel();
+                    }
+                    subscriber.onError(failure);
+                    break;
+                }
+                if (complete) {
+                    subscriber.onComplete();
+                    break;
+                }
+                if (next != null) {
+                    subscriber.onNext(next);
+                }
+                if (toRequest > 0) {
+                    subscription.request(toRequest);
+                }
+                if (next == null && toRequest == 0) {
+                    break;
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The Subscription given to the downstream Subscriber
+     */
+    private class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            synchronized (lock) {
+                if (n <= 0) {
+                    if (error == null) {
+                        error = new IllegalArgumentException("Non-positive request: " + n);
+                    }
+                } else {
+                    requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            final Flow.Subscription subscription;
+            synchronized (lock) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                subscription = upstream;
+            }
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            drain();
+        }
+    }
+
+    /**
+     * Converts a test case received from upstream into a Package
+     *
+     * @param <T>   The type of the test cases received from upstream
+     */
+    @FunctionalInterface
+    interface Converter<T> {
+
+        /**
+         * @return  A Package - only called for the elements accepted by isTestCase
+         */
+        Package convert(T item) throws APIException;
+    }
+}
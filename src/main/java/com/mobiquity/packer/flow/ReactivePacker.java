@@ -0,0 +1,121 @@
+package com.mobiquity.packer.flow;
+
+import com.mobiquity.packer.Packer;
+import com.mobiquity.packer.domain.PackResult;
+import com.mobiquity.packer.domain.Package;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An in-memory API for the Packer, to be embedded in services - no File is needed, and the results are typed
+ * (PackResult) instead of a String.
+ *
+ * Test cases can be given as Package instances or as lines (in the same format as the input File), either as a
+ * Flow.Publisher or as a Stream. The processing is demand-driven (backpressure): test cases are only taken from
+ * the source when the consumer asks for results, and at most "concurrency" of them are processed at a time.
+ *
+ * Example:
+ *
+ *      new ReactivePacker(4, true, executor).packLines(Files.lines(path)).forEach(System.out::println);
+ */
+public class ReactivePacker {
+
+    private final int concurrency;
+
+    /* true to deliver the results in the same order as the input, false to deliver them as soon as they are ready */
+    private final boolean ordered;
+
+    private final Executor executor;
+
+    /**
+     * Ordered results, using all available processors on the common ForkJoinPool
+     */
+    public ReactivePacker() {
+        this(Runtime.getRuntime().availableProcessors(), true, ForkJoinPool.commonPool());
+    }
+
+    public ReactivePacker(int concurrency, boolean ordered, Executor executor) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, but got " + concurrency);
+        }
+        this.concurrency = concurrency;
+        this.ordered = ordered;
+        this.executor = executor;
+    }
+
+    /**
+     * Finds the best fit for each Package published
+     *
+     * Nothing happens until a Subscriber subscribes to the returned Publisher - only then the source is subscribed.
+     * Each Subscriber gets its own subscription to the source (and its own processing), so the source must accept
+     * as many Subscribers as the returned Publisher has.
+     *
+     * @param packages      The Packages to be processed
+     * @return              A Publisher with one PackResult per Package
+     */
+    public Flow.Publisher<PackResult> pack(Flow.Publisher<Package> packages) {
+        return subscriber -> subscribe(packages, subscriber,
+                new PackProcessor<>(p -> true, p -> p, concurrency, ordered, executor));
+    }
+
+    /**
+     * Parses and finds the best fit for each line published - blank lines are skipped
+     *
+     * @param lines         The lines to be processed, in the same format as the input File
+     * @return              A Publisher with one PackResult per (non-blank) line
+     * @see #pack(Flow.Publisher)
+     */
+    public Flow.Publisher<PackResult> packLines(Flow.Publisher<String> lines) {
+        return subscriber -> subscribe(lines, subscriber,
+                new PackProcessor<>(Packer::isTestCase, Packer::parse, concurrency, ordered, executor));
+    }
+
+    /**
+     * Finds the best fit for each Package of the Stream. The Stream is only consumed as the results are consumed.
+     *
+     * Errors (APIException) are thrown wrapped in a RuntimeException. Closing the returned Stream stops the
+     * processing.
+     *
+     * @param packages      The Packages to be processed
+     * @return              A Stream with one PackResult per Package
+     */
+    public Stream<PackResult> pack(Stream<Package> packages) {
+        return toStream(pack(new IteratorPublisher<>(packages.iterator())), packages);
+    }
+
+    /**
+     * Parses and finds the best fit for each line of the Stream - blank lines are skipped
+     *
+     * @param lines         The lines to be processed, in the same format as the input File
+     * @return              A Stream with one PackResult per (non-blank) line
+     * @see #pack(Stream)
+     */
+    public Stream<PackResult> packLines(Stream<String> lines) {
+        return toStream(packLines(new IteratorPublisher<>(lines.iterator())), lines);
+    }
+
+    /**
+     * Connects a Subscriber to the source through a new PackProcessor - the Subscriber goes first, so the source
+     * is only requested once the Subscriber asks for results
+     */
+    private static <T> void subscribe(Flow.Publisher<T> source, Flow.Subscriber<? super PackResult> subscriber,
+                                      PackProcessor<T> processor) {
+        processor.subscribe(subscriber);
+        source.subscribe(processor);
+    }
+
+    private Stream<PackResult> toStream(Flow.Publisher<PackResult> results, Stream<?> source) {
+        final BlockingIterator<PackResult> iterator = new BlockingIterator<>(concurrency);
+        results.subscribe(iterator);
+        final int characteristics = Spliterator.NONNULL | (ordered ? Spliterator.ORDERED : 0);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false)
+                .onClose(iterator::close)
+                .onClose(source::close);
+    }
+}
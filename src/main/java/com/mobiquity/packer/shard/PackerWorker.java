@@ -0,0 +1,141 @@
+package com.mobiquity.packer.shard;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.Packer;
+import com.mobiquity.packer.domain.Package;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Entry point for a worker process - it runs the Packer over a single Shard of the input File and writes the
+ * result to an output File.
+ *
+ * Usage: PackerWorker <input file> <start byte> <end byte> <output file>
+ *
+ * The exit code tells the coordinator what happened with this Shard:
+ *  0. the output File was written
+ *  1. the worker crashed (I/O error, out of memory...) - the Shard can be tried again
+ *  2. the Shard has invalid test cases, or a test case fails to be processed - trying again will not help
+ */
+public class PackerWorker {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_INVALID_INPUT = 2;
+
+    private PackerWorker() {
+    }
+
+    /**
+     * Runs the Packer over all lines inside a byte range of the File, one line at a time - each result is written
+     * as soon as it is found, so the memory used doesn't depend on the size of the range
+     *
+     * @param file          Path to the text file with all test cases
+     * @param start         First byte of the range (inclusive)
+     * @param end           Last byte of the range (exclusive)
+     * @param output        Path to the File where the results are written, separated by line breaks
+     * @throws IOException
+     * @throws APIException If any test case can't be parsed or violates any constraint
+     */
+    static void packRange(final Path file, final long start, final long end, final Path output)
+            throws IOException, APIException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     new RangeInputStream(Channels.newInputStream(channel.position(start)), end - start),
+                     StandardCharsets.UTF_8));
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            long index = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String result;
+                try {
+                    final Package pack = Packer.parse(line);
+                    if (pack == null) {
+                        continue;
+                    }
+                    result = Packer.solve(index, pack).toString();
+                } catch (RuntimeException e) {
+                    /* the same line fails the same way on every attempt - it's bad input, not a crash */
+                    throw new APIException("Error processing line " + line + ": " + e, e);
+                }
+                if (index++ > 0) {
+                    writer.write("\n");
+                }
+                writer.write(result);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: PackerWorker <input file> <start byte> <end byte> <output file>");
+            System.exit(EXIT_FAILURE);
+        }
+
+        try {
+            packRange(Paths.get(args[0]), Long.parseLong(args[1]), Long.parseLong(args[2]), Paths.get(args[3]));
+        } catch (APIException e) {
+            System.err.println(e.getMessage());
+            System.exit(EXIT_INVALID_INPUT);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(EXIT_FAILURE);
+        }
+        System.exit(EXIT_OK);
+    }
+
+    /**
+     * An InputStream which stops after a given number of bytes
+     */
+    private static class RangeInputStream extends InputStream {
+
+        private final InputStream in;
+
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mobiquity.packer.shard;
+
+/**
+ * A Shard is a byte range of the input File - it always starts at the beginning of a line and ends right
+ * after a line break (or at the end of the File), so no test case is split between two Shards
+ */
+public class Shard
+{
+    /* The Shard order inside the input File - results are merged back following this order */
+    private final int index;
+
+    /* First byte of this Shard (inclusive) */
+    private final long start;
+
+    /* Last byte of this Shard (exclusive) */
+    private final long end;
+
+    public Shard(int index, long start, long end) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long length() {
+        return end - start;
+    }
+
+    public String toString() {
+        return this.index+", ["+this.start+", "+this.end+")";
+    }
+
+}
@@ -0,0 +1,286 @@
+package com.mobiquity.packer.shard;
+
+import com.mobiquity.exception.APIException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Coordinates the processing of a large input File using several local worker processes (JVMs).
+ *
+ * The input File is split at line breaks into byte ranges (Shard) of a fixed target size - usually many more Shards
+ * than workers. Each worker process (PackerWorker, with a small heap) takes the next Shard from a shared queue, and
+ * the outputs are merged back following the original order of the lines.
+ *
+ * When a worker fails (crash, out of memory, killed, timed out), its Shard is put back on the queue and taken by the next
+ * free worker, up to a maximum number of attempts. Invalid test cases are not retried - they fail the whole
+ * processing, in the same way Packer.pack does.
+ */
+public class ShardCoordinator {
+
+    /* Maximum number of times a Shard is tried before giving up */
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /* Maximum heap for each worker JVM */
+    private static final String DEFAULT_WORKER_HEAP = "256m";
+
+    /* Maximum time a worker can take on a single Shard - after that, the worker is killed and the Shard is tried again */
+    private static final Duration DEFAULT_WORKER_TIMEOUT = Duration.ofMinutes(10);
+
+    /* Exit code reported for a worker which was killed after the timeout */
+    private static final int EXIT_TIMEOUT = -1;
+
+    /* Target size of each Shard, in bytes */
+    private static final long DEFAULT_SHARD_SIZE = 32L * 1024 * 1024;
+
+    /* Number of worker processes running at the same time */
+    private final int workers;
+
+    private final long shardSize;
+
+    private final int maxAttempts;
+
+    private final String workerHeap;
+
+    private final Duration workerTimeout;
+
+    public ShardCoordinator(int workers) {
+        this(workers, DEFAULT_SHARD_SIZE, DEFAULT_MAX_ATTEMPTS, DEFAULT_WORKER_HEAP, DEFAULT_WORKER_TIMEOUT);
+    }
+
+    public ShardCoordinator(int workers, long shardSize, int maxAttempts, String workerHeap, Duration workerTimeout) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be at least 1, but got " + workers);
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Number of attempts must be at least 1, but got " + maxAttempts);
+        }
+        this.workers = workers;
+        this.shardSize = shardSize;
+        this.maxAttempts = maxAttempts;
+        this.workerHeap = workerHeap;
+        this.workerTimeout = workerTimeout;
+    }
+
+    /**
+     * Processes all test cases from the File, and returns all results at once - meant for small inputs, since
+     * the whole result is kept in memory
+     *
+     * @param filePath      Path to the text file with all test cases
+     * @return              The same result as Packer.pack - one line per test case, in the File order
+     * @throws APIException
+     * @see #pack(String, Writer)
+     */
+    public String pack(String filePath) throws APIException {
+        final StringWriter result = new StringWriter();
+        pack(filePath, result);
+        return result.toString();
+    }
+
+    /**
+     * Processes all test cases from the File, splitting the work between the worker processes. The output of each
+     * Shard is written as soon as all the previous Shards are written, so the results are never held in memory.
+     *
+     * @param filePath      Path to the text file with all test cases
+     * @param out           Receives the same result as Packer.pack - one line per test case, in the File order
+     * @throws APIException
+     */
+    public void pack(String filePath, Writer out) throws APIException {
+        final Path input = Paths.get(filePath).toAbsolutePath();
+
+        final List<Shard> shards;
+        final Path workDir;
+        try {
+            shards = ShardPlanner.plan(input, shardSize);
+            workDir = Files.createTempDirectory("packer-shards");
+        } catch (IOException e) {
+            throw new APIException("Error reading file.", e);
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            runAll(shards, input, workDir, pool, out);
+        } finally {
+            pool.shutdownNow();
+            deleteRecursively(workDir);
+        }
+    }
+
+    private void runAll(final List<Shard> shards, final Path input, final Path workDir,
+                        final ExecutorService pool, final Writer out) throws APIException {
+        /* outputs of the Shards already finished, which are waiting for the previous ones to be written */
+        final Path[] outputs = new Path[shards.size()];
+        final CompletionService<ShardRun> completion = new ExecutorCompletionService<>(pool);
+
+        for (final Shard shard : shards) {
+            completion.submit(() -> run(shard, 1, input, workDir));
+        }
+
+        int pending = shards.size();
+        int nextToWrite = 0;
+        boolean written = false;
+        try {
+            while (pending > 0) {
+                final ShardRun run = completion.take().get();
+                final Shard shard = run.shard;
+
+                if (run.exitCode == PackerWorker.EXIT_OK) {
+                    outputs[shard.getIndex()] = run.output;
+                    pending--;
+
+                    /* writes all Shards which are next in line */
+                    while (nextToWrite < outputs.length && outputs[nextToWrite] != null) {
+                        written |= append(outputs[nextToWrite], out, written);
+                        Files.delete(outputs[nextToWrite]);
+                        outputs[nextToWrite++] = null;
+                    }
+                } else if (run.exitCode == PackerWorker.EXIT_INVALID_INPUT) {
+                    throw new APIException(run.errorMsg.trim());
+                } else if (run.attempt < maxAttempts) {
+                    /* the Shard goes back to the queue, and the next free worker takes it */
+                    final int attempt = run.attempt + 1;
+                    completion.submit(() -> run(shard, attempt, input, workDir));
+                } else {
+                    throw new APIException(String.format("Shard [%s] failed after [%s] attempts: %s",
+                            shard, run.attempt, run.errorMsg.trim()));
+                }
+            }
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIException("Interrupted while waiting for the workers.", e);
+        } catch (ExecutionException e) {
+            throw new APIException("Error running a worker.", e);
+        } catch (IOException e) {
+            throw new APIException("Error writing worker output.", e);
+        }
+    }
+
+    /**
+     * Copies the output of a Shard to the Writer. Shards without any test case produce an empty output, so they
+     * don't add a line.
+     *
+     * @return              True if anything was written
+     */
+    private static boolean append(final Path output, final Writer out, final boolean separate) throws IOException {
+        if (Files.size(output) == 0) {
+            return false;
+        }
+        if (separate) {
+            out.write("\n");
+        }
+        try (Reader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+            reader.transferTo(out);
+        }
+        return true;
+    }
+
+    /**
+     * Launches a worker process for the Shard, and waits until it finishes
+     */
+    private ShardRun run(final Shard shard, final int attempt, final Path input, final Path workDir)
+            throws IOException, InterruptedException {
+        final Path output = workDir.resolve("shard-" + shard.getIndex() + ".out");
+        final Path errors = workDir.resolve("shard-" + shard.getIndex() + "-" + attempt + ".err");
+        Files.deleteIfExists(output);
+
+        final Process process = new ProcessBuilder(workerCommand(shard, attempt, input, output))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(errors.toFile())
+                .start();
+        try {
+            if (!process.waitFor(workerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return new ShardRun(shard, attempt, EXIT_TIMEOUT, output,
+                        String.format("Worker timed out after [%s].", workerTimeout));
+            }
+            return new ShardRun(shard, attempt, process.exitValue(), output,
+                    Files.readString(errors, StandardCharsets.UTF_8));
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Builds the command line for a worker process - it runs PackerWorker on a new JVM, with the same classpath
+     * of the current one
+     */
+    List<String> workerCommand(final Shard shard, final int attempt, final Path input, final Path output) {
+        final List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + workerHeap);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PackerWorker.class.getName());
+        command.add(input.toString());
+        command.add(String.valueOf(shard.getStart()));
+        command.add(String.valueOf(shard.getEnd()));
+        command.add(output.toString());
+        return command;
+    }
+
+    private static void deleteRecursively(final Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The outcome of running a worker process over a Shard
+     */
+    private static class ShardRun {
+        private final Shard shard;
+        private final int attempt;
+        private final int exitCode;
+        private final Path output;
+        private final String errorMsg;
+
+        ShardRun(Shard shard, int attempt, int exitCode, Path output, String errorMsg) {
+            this.shard = shard;
+            this.attempt = attempt;
+            this.exitCode = exitCode;
+            this.output = output;
+            this.errorMsg = errorMsg;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: ShardCoordinator <input file> [workers]");
+            return;
+        }
+
+        final int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try {
+            final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            new ShardCoordinator(workers).pack(args[0], out);
+            out.write(System.lineSeparator());
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Exception: " + e.getMessage());
+        } catch (APIException e) {
+            System.out.println("Exception: " + e.getMessage());
+        }
+    }
+}
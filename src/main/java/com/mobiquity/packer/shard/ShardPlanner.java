@@ -0,0 +1,74 @@
+package com.mobiquity.packer.shard;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an input File in byte ranges (Shard), always cutting the File at line breaks.
+ *
+ * The File is never read entirely - for each cut point we seek to an approximate offset and scan forward
+ * until the next line break.
+ */
+public class ShardPlanner {
+
+    private ShardPlanner() {
+    }
+
+    /**
+     * Splits the File in Shards of roughly the given size - each Shard goes until the first line break after
+     * "shardSize" bytes, so a Shard is only bigger than that when a single line is bigger than that.
+     *
+     * The number of Shards depends only on the File size, not on the number of workers - workers take the next
+     * Shard from a shared queue as soon as they finish the previous one.
+     *
+     * @param file          Path to the text file with all test cases
+     * @param shardSize     The target size of each Shard, in bytes
+     * @return              The list of Shards, in the same order they appear in the File
+     * @throws IOException
+     */
+    public static List<Shard> plan(final Path file, final long shardSize) throws IOException {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Shard size must be at least 1 byte, but got " + shardSize);
+        }
+
+        final List<Shard> shards = new ArrayList<>();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            final long size = raf.length();
+            long start = 0;
+
+            while (start < size) {
+                /* the last Shard always goes until the end of the File */
+                final long end = size - start <= shardSize ? size : nextLineStart(raf, start + shardSize - 1, size);
+                shards.add(new Shard(shards.size(), start, end));
+                start = end;
+            }
+        }
+
+        return shards;
+    }
+
+    /**
+     * Finds the first byte after the line break at (or after) the given offset
+     *
+     * Since the input is UTF-8, the byte '\n' never appears inside a multi-byte character (like the € symbol).
+     */
+    private static long nextLineStart(final RandomAccessFile raf, final long offset, final long size) throws IOException {
+        raf.seek(offset);
+        final byte[] buffer = new byte[8192];
+        long position = offset;
+        int read;
+        while ((read = raf.read(buffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -15,6 +15,8 @@ import com.mobiquity.packer.domain.Package;
  * 1. Max weight that a package can take is ≤ 100
  * 2. There might be up to 15 items you need to choose from
  * 3. Max weight and cost of an item is ≤ 100
+ *
+ * Capacity, weights and costs can't be negative, and weights and costs must also have at most 2 decimal places - the Packer handles them as integer hundredths.
  **/
 public class DefaultPackageValidationService implements PackageValidationService {
 
@@ -28,6 +30,9 @@ public class DefaultPackageValidationService implements PackageValidationService
     /* Maximum cost for an item */
     private static final int MAX_COST = 100;
 
+    /* Maximum number of decimal places for the weight and cost of an item */
+    private static final int MAX_DECIMAL_PLACES = 2;
+
     /**
      * This method applies all 3 validation rules, creating dependencies between them using the linkWith function
      * @param command   This is the instance of the Package being analyzed for any constraint violation.
@@ -35,12 +40,31 @@ public class DefaultPackageValidationService implements PackageValidationService
      */
     @Override
     public ValidationResult validate(Package command) {
-        return new MaxWeightValidationStep()
+        return new MinValuesValidationStep()
+                .linkWith(new MaxWeightValidationStep())
                 .linkWith(new MaxWeightCostItemValidationStep())
                 .linkWith(new MaxItemsValidationStep())
+                .linkWith(new DecimalPlacesValidationStep())
                 .validate(command);
     }
 
+    /**
+     * Validation that applies the constraint: capacity of the package, and weight and cost of the items are ≥ 0
+     */
+    private static class MinValuesValidationStep extends ValidationStep<Package> {
+
+        @Override
+        public ValidationResult validate(Package command) {
+            if (command.getCapacity() < 0) {
+                return ValidationResult.invalid(String.format("Minimum weight for a package is [0] but got [%s].", command.getCapacity()));
+            }
+            if (command.getItems().stream().anyMatch(m -> m != null && (m.getCost() < 0 || m.getWeight() < 0))) {
+                return ValidationResult.invalid("Minimum cost and minimum weight are [0] for each item in the package.");
+            }
+            return checkNext(command);
+        }
+    }
+
     /**
      *  Validation that applies the constraint: Max weight that a package can take is ≤ 100
      */
@@ -84,5 +108,28 @@ public class DefaultPackageValidationService implements PackageValidationService
             return checkNext(command);
         }
     }
-}
 
+    /**
+     * Validation applying the constraint: weights and costs of the items have at most 2 decimal places
+     */
+    private static class DecimalPlacesValidationStep extends ValidationStep<Package> {
+
+        @Override
+        public ValidationResult validate(Package command) {
+            if (command != null && command.getItems().stream().anyMatch(m -> m != null
+                    && (!hasTwoDecimalPlaces(m.getWeight()) || !hasTwoDecimalPlaces(m.getCost())))) {
+                return ValidationResult.invalid(String.format("Weight and cost of each item can have at most " +
+                        "[%s] decimal places.", MAX_DECIMAL_PLACES));
+            }
+            return checkNext(command);
+        }
+
+        /**
+         * A number parsed from up to 2 decimal places is the same float as its value in hundredths divided by 100,
+         * so the comparison is exact - any other digit makes them differ
+         */
+        private static boolean hasTwoDecimalPlaces(float value) {
+            return Math.round(value * 100) / 100f == value;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.mobiquity.packer;
 
 import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.domain.Package;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -9,6 +10,11 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class PackerTest {
     @Test
@@ -26,11 +32,7 @@ public class PackerTest {
 
         Path resourceOutputFile = Paths.get("src","test","resources", "example_output");
 
-        assertNotEquals( Files.readString(resourceOutputFile), result);
-
-        Path resourceOutputCorrectFile = Paths.get("src","test","resources", "example_output_correct");
-
-        assertEquals( Files.readString(resourceOutputCorrectFile), result);
+        assertEquals( Files.readString(resourceOutputFile), result);
 
     }
 
@@ -129,5 +131,142 @@ public class PackerTest {
 
     }
 
+    @Test
+    @DisplayName("Among itens with the same cost, the lightest one is choosen")
+    public void testTieOnCostPicksLightestItem() throws Exception
+    {
+        Set<Integer> items = new TreeSet<>();
+
+        float max = Packer.findBestFitsIntoPackage(10, new float[] {5, 5, 5}, new float[] {9.5f, 3.25f, 7}, items);
+
+        assertEquals(5f, max);
+        assertEquals(Set.of(2), items);
+    }
+
+    @Test
+    @DisplayName("Among sets of itens with the same total cost, the lightest set is choosen")
+    public void testTieOnCostPicksLightestSet() throws Exception
+    {
+        /* {1} and {2,3} both cost 60, but {2,3} weighs 20.02 against 30 */
+        Set<Integer> items = new TreeSet<>();
+        Packer.findBestFitsIntoPackage(31, new float[] {60, 30, 30}, new float[] {30, 10.01f, 10.01f}, items);
+        assertEquals(Set.of(2, 3), items);
+
+        /* the same, with the lightest set coming first */
+        items = new TreeSet<>();
+        Packer.findBestFitsIntoPackage(31, new float[] {30, 30, 60}, new float[] {10.01f, 10.01f, 30}, items);
+        assertEquals(Set.of(1, 2), items);
+    }
+
+    @Test
+    @DisplayName("The best fit has the maximum cost and, on ties, the minimum weight - compared to an exhaustive search")
+    public void testBestFitMatchesExhaustiveSearch() throws Exception
+    {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(12);
+            int capacity = 1 + random.nextInt(100);
+            float[] costs = new float[n];
+            float[] weights = new float[n];
+            for (int i = 0; i < n; i++) {
+                /* few distinct costs, so there are a lot of ties */
+                costs[i] = 1 + random.nextInt(5) * 10;
+                weights[i] = (1 + random.nextInt(5000)) / 100f;
+            }
+
+            /* tries every subset of itens, using integer hundredths to avoid rounding issues */
+            int bestCost = -1, bestWeight = 0;
+            for (int mask = 0; mask < (1 << n); mask++) {
+                int cost = 0, weight = 0;
+                for (int i = 0; i < n; i++) {
+                    if ((mask & (1 << i)) != 0) {
+                        cost += Math.round(costs[i] * 100);
+                        weight += Math.round(weights[i] * 100);
+                    }
+                }
+                if (weight <= capacity * 100 && (cost > bestCost || (cost == bestCost && weight < bestWeight))) {
+                    bestCost = cost;
+                    bestWeight = weight;
+                }
+            }
+
+            Set<Integer> items = new TreeSet<>();
+            float max = Packer.findBestFitsIntoPackage(capacity, costs, weights, items);
+
+            int cost = 0, weight = 0;
+            for (Integer item : items) {
+                cost += Math.round(costs[item - 1] * 100);
+                weight += Math.round(weights[item - 1] * 100);
+            }
+            assertEquals(bestCost, cost);
+            assertEquals(bestWeight, weight);
+            assertEquals(bestCost / 100f, max);
+        }
+    }
+
+    @Test
+    @DisplayName("Results keep the order of the lines, even with a lot of test cases")
+    public void testOrderWithManyLines() throws Exception
+    {
+        List<String> lines = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            if (i > 0) {
+                expected.append("\n");
+            }
+            if (i % 2 == 0) {
+                lines.add("8 : (1,15.3,€34)");
+                expected.append("-");
+            } else {
+                lines.add("81 : (1,53.38,€45) (2,88.62,€98) (3,78.48,€3) (4,72.30,€76) (5,30.18,€9) (6,46.34,€48)");
+                expected.append("4");
+            }
+        }
+
+        Path input = Files.createTempFile("many_lines", ".txt");
+        try {
+            Files.write(input, lines);
+            assertEquals(expected.toString(), Packer.pack(input.toString()));
+        } finally {
+            Files.delete(input);
+        }
+    }
+
+    @Test
+    @DisplayName("Parsing a line doesn't validate the Package - it is validated once, when solving it")
+    public void testParseThenSolveValidates() throws Exception
+    {
+        Package pack = Packer.parse("180 : (1,53.38,€45)");
+
+        assertEquals(180, pack.getCapacity());
+        assertThrows(APIException.class, () -> Packer.solve(0, pack));
+
+        assertNull(Packer.parse("   "));
+        assertFalse(Packer.isTestCase(":"));
+        assertEquals("2", Packer.solve(0, Packer.parse("81 : (1,53.38,€45) (2,72.30,€76)")).toString());
+    }
+
+    @Test
+    @DisplayName("Weights and costs with more than 2 decimal places are rejected, instead of rounded")
+    public void testInvalidCaseMoreThanTwoDecimalPlaces() throws Exception
+    {
+        Path input = Files.createTempFile("decimal_places", ".txt");
+        try {
+            /* rounding 10.004 to 10.00 would fit the item in the Package */
+            Files.writeString(input, "10 : (1,10.004,€5)");
+            assertThrows(APIException.class, () -> Packer.pack(input.toString()));
+
+            Files.writeString(input, "10 : (1,5,€5.125)");
+            assertThrows(APIException.class, () -> Packer.pack(input.toString()));
+
+            Files.writeString(input, "10 : (1,9.99,€5.12)");
+            assertEquals("1", Packer.pack(input.toString()));
+        } finally {
+            Files.delete(input);
+        }
+
+        assertThrows(APIException.class, () -> Packer.solve(0, Packer.parse("10 : (1,10.004,€5)")));
+    }
 
 }
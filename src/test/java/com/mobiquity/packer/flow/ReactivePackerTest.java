@@ -0,0 +1,311 @@
+package com.mobiquity.packer.flow;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.Packer;
+import com.mobiquity.packer.domain.PackResult;
+import com.mobiquity.packer.domain.Package;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ReactivePackerTest {
+
+    private static final Path EXAMPLE_INPUT = Paths.get("src","test","resources", "example_input");
+
+    @Test
+    @DisplayName("Ordered results from a Stream of lines are the same as Packer.pack")
+    public void testOrderedLines() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (Stream<PackResult> results = new ReactivePacker(4, true, executor).packLines(Files.lines(EXAMPLE_INPUT))) {
+            String result = results.map(PackResult::toString).collect(Collectors.joining("\n"));
+
+            assertEquals(Packer.pack(EXAMPLE_INPUT.toString()), result);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Unordered results from a Publisher of Packages carry their position and totals")
+    public void testUnorderedPackages() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<PackResult> results = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        try (SubmissionPublisher<Package> publisher = new SubmissionPublisher<>()) {
+            new ReactivePacker(4, false, executor).pack(publisher).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(PackResult item) {
+                    results.add(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    error.set(throwable);
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+
+            for (String line : Files.readAllLines(EXAMPLE_INPUT)) {
+                publisher.submit(Packer.parse(line));
+            }
+        }
+
+        try {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertNull(error.get());
+        assertEquals(4, results.size());
+
+        results.sort(Comparator.comparingLong(PackResult::getIndex));
+        assertEquals(Packer.pack(EXAMPLE_INPUT.toString()),
+                results.stream().map(PackResult::toString).collect(Collectors.joining("\n")));
+
+        PackResult first = results.get(0);
+        assertEquals(List.of(4), first.getItems());
+        assertEquals(76f, first.getTotalCost(), 0.001);
+        assertEquals(72.30f, first.getTotalWeight(), 0.001);
+
+        PackResult second = results.get(1);
+        assertTrue(second.getItems().isEmpty());
+        assertEquals(0f, second.getTotalCost());
+        assertEquals("-", second.toString());
+    }
+
+    @Test
+    @DisplayName("Lines are only taken from the source as results are requested")
+    public void testBackpressure() throws Exception
+    {
+        AtomicInteger taken = new AtomicInteger();
+        Iterator<String> lines = Files.readAllLines(EXAMPLE_INPUT).iterator();
+        Iterator<String> counting = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return lines.hasNext();
+            }
+
+            @Override
+            public String next() {
+                taken.incrementAndGet();
+                return lines.next();
+            }
+        };
+
+        CountDownLatch received = new CountDownLatch(1);
+        new ReactivePacker(4, true, Runnable::run).packLines(new IteratorPublisher<>(counting)).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(PackResult item) {
+                received.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        assertEquals(1, taken.get());
+    }
+
+    @Test
+    @DisplayName("Invalid lines are reported as an APIException")
+    public void testInvalidLine() throws Exception
+    {
+        Path resourceDirectory = Paths.get("src","test","resources", "example_input_violate_max_capacity");
+
+        try (Stream<PackResult> results = new ReactivePacker().packLines(Files.lines(resourceDirectory))) {
+            RuntimeException exc = assertThrows(RuntimeException.class, () -> results.collect(Collectors.toList()));
+            assertTrue(exc.getCause() instanceof APIException);
+        }
+    }
+
+    @Test
+    @DisplayName("Blank lines don't count for the index, on ordered and unordered modes - the same as Packer.pack")
+    public void testIndexSkipsBlankLines() throws Exception
+    {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(EXAMPLE_INPUT)) {
+            lines.add("");
+            lines.add(line);
+            lines.add("   ");
+        }
+        Path input = Files.createTempFile("blank_lines", ".txt");
+        List<String> expected;
+        try {
+            Files.write(input, lines);
+            expected = List.of(Packer.pack(input.toString()).split("\n"));
+        } finally {
+            Files.delete(input);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (boolean ordered : new boolean[] {true, false}) {
+                List<PackResult> results = new ReactivePacker(4, ordered, executor).packLines(lines.stream())
+                        .collect(Collectors.toList());
+
+                if (ordered) {
+                    assertEquals(List.of(0L, 1L, 2L, 3L), results.stream().map(PackResult::getIndex).collect(Collectors.toList()));
+                }
+                results.sort(Comparator.comparingLong(PackResult::getIndex));
+                assertEquals(4, results.size());
+                for (PackResult result : results) {
+                    assertEquals(expected.get((int) result.getIndex()), result.toString());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("No more than 'concurrency' test cases are in flight at any time, on ordered and unordered modes")
+    public void testConcurrencyLimit() throws Exception
+    {
+        List<String> sample = Files.readAllLines(EXAMPLE_INPUT);
+
+        for (boolean ordered : new boolean[] {true, false}) {
+            AtomicInteger taken = new AtomicInteger();
+            AtomicInteger received = new AtomicInteger();
+            AtomicInteger completed = new AtomicInteger();
+            Iterator<String> lines = Stream.generate(() -> sample.get(taken.get() % sample.size())).limit(20).iterator();
+            Iterator<String> counting = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return lines.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    String next = lines.next();
+                    taken.incrementAndGet();
+                    return next;
+                }
+            };
+
+            /* the test decides when each task runs - always the most recent one, so the results finish out of order */
+            Deque<Runnable> tasks = new ArrayDeque<>();
+            new ReactivePacker(3, ordered, tasks::add).packLines(new IteratorPublisher<>(counting)).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(PackResult item) {
+                    received.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.incrementAndGet();
+                }
+            });
+
+            assertEquals(3, taken.get());
+            assertEquals(3, tasks.size());
+            while (!tasks.isEmpty()) {
+                tasks.pollLast().run();
+                assertTrue(taken.get() - received.get() <= 3);
+                assertTrue(tasks.size() <= 3);
+            }
+
+            assertEquals(20, received.get());
+            assertEquals(1, completed.get());
+        }
+    }
+
+    @Test
+    @DisplayName("A second Subscriber of an IteratorPublisher is rejected without taking any element")
+    public void testSecondSubscriberIsRejected() throws Exception
+    {
+        IteratorPublisher<String> publisher = new IteratorPublisher<>(List.of("a", "b", "c").iterator());
+
+        BlockingIterator<String> first = new BlockingIterator<>(1);
+        publisher.subscribe(first);
+
+        BlockingIterator<String> second = new BlockingIterator<>(10);
+        publisher.subscribe(second);
+
+        assertThrows(IllegalStateException.class, second::hasNext);
+        assertEquals(List.of("a", "b", "c"), Stream.generate(first::next).limit(3).collect(Collectors.toList()));
+        assertFalse(first.hasNext());
+    }
+
+    @Test
+    @DisplayName("The source is only subscribed when a Subscriber subscribes to the results, once per Subscriber")
+    public void testSourceIsSubscribedLazily() throws Exception
+    {
+        List<String> lines = Files.readAllLines(EXAMPLE_INPUT);
+        AtomicInteger subscriptions = new AtomicInteger();
+        Flow.Publisher<String> source = subscriber -> {
+            subscriptions.incrementAndGet();
+            new IteratorPublisher<>(lines.iterator()).subscribe(subscriber);
+        };
+
+        ReactivePacker packer = new ReactivePacker(2, true, Runnable::run);
+        Flow.Publisher<PackResult> results = packer.packLines(source);
+        assertEquals(0, subscriptions.get());
+
+        for (int i = 1; i <= 2; i++) {
+            BlockingIterator<PackResult> iterator = new BlockingIterator<>(2);
+            results.subscribe(iterator);
+            assertEquals(i, subscriptions.get());
+
+            List<String> received = new ArrayList<>();
+            iterator.forEachRemaining(r -> received.add(r.toString()));
+            assertEquals(Packer.pack(EXAMPLE_INPUT.toString()), String.join("\n", received));
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.mobiquity.packer.shard;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.Packer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ShardCoordinatorTest {
+    @Test
+    @DisplayName("Shards cover the whole File and are cut at line breaks")
+    public void testShardsAreCutAtLineBreaks() throws Exception
+    {
+        Path resourceDirectory = Paths.get("src","test","resources", "example_input");
+        byte[] content = Files.readAllBytes(resourceDirectory);
+
+        List<Shard> shards = ShardPlanner.plan(resourceDirectory, 150);
+
+        assertTrue(shards.size() > 1);
+        assertEquals(0, shards.get(0).getStart());
+        assertEquals(content.length, shards.get(shards.size() - 1).getEnd());
+        for (int i = 1; i < shards.size(); i++) {
+            assertEquals(shards.get(i - 1).getEnd(), shards.get(i).getStart());
+            assertEquals('\n', content[(int) shards.get(i).getStart() - 1]);
+        }
+    }
+
+    @Test
+    @DisplayName("A Shard size smaller than a line results in one Shard per line")
+    public void testShardSmallerThanLine() throws Exception
+    {
+        Path resourceDirectory = Paths.get("src","test","resources", "example_input");
+
+        List<Shard> shards = ShardPlanner.plan(resourceDirectory, 1);
+
+        assertEquals(4, shards.size());
+    }
+
+    @Test
+    @DisplayName("Sharded processing returns the same result as Packer.pack, in the same order")
+    public void testShardedCaseScenario() throws Exception
+    {
+        for (String input : new String[] {"example_input", "example_input_2"}) {
+            String absolutePath = Paths.get("src","test","resources", input).toFile().getAbsolutePath();
+
+            assertEquals(Packer.pack(absolutePath), new ShardCoordinator(3).pack(absolutePath));
+        }
+    }
+
+    @Test
+    @DisplayName("More Shards than workers - the workers take the Shards from a shared queue")
+    public void testMoreShardsThanWorkers() throws Exception
+    {
+        Path resourceDirectory = Paths.get("src","test","resources", "example_input");
+        String absolutePath = resourceDirectory.toFile().getAbsolutePath();
+
+        assertTrue(ShardPlanner.plan(resourceDirectory, 100).size() > 2);
+        assertEquals(Packer.pack(absolutePath), new ShardCoordinator(2, 100, 1, "64m", Duration.ofMinutes(1)).pack(absolutePath));
+    }
+
+    @Test
+    @DisplayName("Sharded processing streams the results to a Writer, in the File order")
+    public void testShardedToWriter() throws Exception
+    {
+        String absolutePath = Paths.get("src","test","resources", "example_input").toFile().getAbsolutePath();
+        StringWriter out = new StringWriter();
+
+        new ShardCoordinator(2, 1, 1, "64m", Duration.ofMinutes(1)).pack(absolutePath, out);
+
+        assertEquals(Packer.pack(absolutePath), out.toString());
+    }
+
+    @Test
+    @DisplayName("A Shard is taken again by another worker when its worker fails")
+    public void testFailedWorkerIsRetried() throws Exception
+    {
+        String absolutePath = Paths.get("src","test","resources", "example_input").toFile().getAbsolutePath();
+
+        /* the first attempt for every Shard runs a class which doesn't exist, so the JVM exits with an error */
+        ShardCoordinator coordinator = new ShardCoordinator(2, 100, 2, "64m", Duration.ofMinutes(1)) {
+            @Override
+            List<String> workerCommand(Shard shard, int attempt, Path input, Path output) {
+                List<String> command = super.workerCommand(shard, attempt, input, output);
+                if (attempt == 1) {
+                    command.set(command.indexOf(PackerWorker.class.getName()), "com.mobiquity.DoesNotExist");
+                }
+                return command;
+            }
+        };
+
+        assertEquals(Packer.pack(absolutePath), coordinator.pack(absolutePath));
+    }
+
+    @Test
+    @DisplayName("Invalid test cases on a Shard fail the whole processing")
+    public void testShardedInvalidCase() throws Exception
+    {
+        String absolutePath = Paths.get("src","test","resources", "example_input_violate_max_capacity").toFile().getAbsolutePath();
+
+        assertThrows(
+                APIException.class,
+                () -> new ShardCoordinator(2).pack(absolutePath),
+                "Expected ShardCoordinator.pack(absolutePath) to throw, but it didn't"
+        );
+    }
+
+    @Test
+    @DisplayName("Malformed test cases are not retried - they fail the whole processing")
+    public void testMalformedCaseIsNotRetried() throws Exception
+    {
+        Path input = Files.createTempFile("malformed", ".txt");
+        try {
+            for (String content : new String[] {"81 : (1,53.38,€45)\n8 (1,15.3,€34)\n75 : (1,85.31)\n",
+                    "-1 : (1,1,€5)", "10 : (1,-1,€5)"}) {
+                Files.writeString(input, content);
+
+                for (int shardSize : new int[] {1, 1024}) {
+                    AtomicInteger attempts = new AtomicInteger();
+                    ShardCoordinator coordinator = new ShardCoordinator(1, shardSize, 3, "64m", Duration.ofMinutes(1)) {
+                        @Override
+                        List<String> workerCommand(Shard shard, int attempt, Path input, Path output) {
+                            if (attempt > 1) {
+                                attempts.incrementAndGet();
+                            }
+                            return super.workerCommand(shard, attempt, input, output);
+                        }
+                    };
+
+                    assertThrows(APIException.class, () -> coordinator.pack(input.toString()));
+                    assertEquals(0, attempts.get());
+                }
+            }
+        } finally {
+            Files.delete(input);
+        }
+    }
+
+    @Test
+    @DisplayName("A worker which doesn't finish in time is killed, and its Shard is taken again")
+    public void testHungWorkerIsRetried() throws Exception
+    {
+        String absolutePath = Paths.get("src","test","resources", "example_input").toFile().getAbsolutePath();
+
+        /* the first attempt for every Shard hangs */
+        ShardCoordinator coordinator = new ShardCoordinator(2, 1024, 2, "64m", Duration.ofSeconds(2)) {
+            @Override
+            List<String> workerCommand(Shard shard, int attempt, Path input, Path output) {
+                List<String> command = super.workerCommand(shard, attempt, input, output);
+                if (attempt == 1) {
+                    command.set(command.indexOf(PackerWorker.class.getName()), HangingWorker.class.getName());
+                }
+                return command;
+            }
+        };
+
+        assertEquals(Packer.pack(absolutePath), coordinator.pack(absolutePath));
+    }
+
+    /**
+     * A worker which never finishes
+     */
+    public static class HangingWorker {
+        public static void main(String[] args) throws InterruptedException {
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+}